@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.simdvarint;
+
+import java.nio.ByteOrder;
+import java.util.Objects;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Provides utilities for encoding and decoding integer arrays as a sequence of fixed-size blocks.
+ *
+ * <p>Every block holds {@link #BLOCK_SIZE} integers and starts with a single header byte. If the
+ * header is in the range {@code [0..32]}, the integers are bit-packed using as many bits as the
+ * header indicates, which is the bit width of the largest (unsigned) integer in the block.
+ * Otherwise, the header equals {@code 0x80} and the block is a series of base-128 varints.
+ * The encoder picks the smallest representation for each block, preferring bit-packing on ties
+ * since it decodes faster. The trailing integers that do not fill a whole block are always
+ * stored as varints.
+ *
+ * <p>Bit-packed blocks are laid out vertically: the {@code i}-th integer is stored in the lane
+ * {@code i % L} of the row {@code i / L}, where {@code L} is the number of 32-bit lanes in a
+ * 256-bit vector. Each lane is packed into {@code b} little-endian 32-bit words, for a block bit
+ * width of {@code b}, which allows packing and unpacking every lane at once.
+ */
+public final class BlockCodec {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+  private static final int LANES = SPECIES.length();
+  private static final int ROWS = Integer.SIZE;
+  private static final int MAX_VARINT_BYTES = 5;
+  private static final byte VARINT_BLOCK = (byte) 0x80;
+
+  /** The number of integers stored in a block. */
+  public static final int BLOCK_SIZE = ROWS * LANES;
+
+  /**
+   * Returns the maximum number of bytes needed to encode the given number of integers.
+   *
+   * @param length the number of integers
+   * @return the maximum encoded length
+   * @throws IllegalArgumentException if {@code length < 0}, or if the maximum encoded length is
+   *     greater than {@link Integer#MAX_VALUE}
+   */
+  public static int maxEncodedLength(final int length) {
+    if (length < 0) {
+      throw new IllegalArgumentException("Negative length " + length);
+    }
+    final int tail = length % BLOCK_SIZE;
+    final long result = (long) (length / BLOCK_SIZE) * packedLength(Integer.SIZE)
+        + (tail == 0 ? 0 : 1 + tail * MAX_VARINT_BYTES);
+    if (result > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Encoded length of " + length + " integers overflows");
+    }
+    return (int) result;
+  }
+
+  /**
+   * Encodes the integers in the range {@code [srcOffset..srcOffset + length)} of the given array
+   * into the given destination array, starting at the given offset.
+   *
+   * @param src the array to read from
+   * @param srcOffset the offset into the source array
+   * @param length the number of integers to encode
+   * @param dest the array to write to
+   * @param destOffset the offset into the destination array
+   * @return the number of written bytes, at most {@link #maxEncodedLength(int)}
+   * @throws IndexOutOfBoundsException if the source range is out of bounds, or if the encoded
+   *     integers do not fit in the destination array
+   */
+  public static int encode(final int[] src, final int srcOffset, final int length,
+      final byte[] dest, final int destOffset) {
+    Objects.checkFromIndexSize(srcOffset, length, src.length);
+    final int end = srcOffset + length;
+    int in = srcOffset;
+    int out = destOffset;
+
+    for (; in + BLOCK_SIZE <= end; in += BLOCK_SIZE) {
+      final int bitWidth = bitWidth(src, in);
+      // Every varint takes at least 1 byte, so a varint block is never smaller than a packed
+      // block of 8 bits or less (packedLength(8) == 1 + BLOCK_SIZE); skip sizing those.
+      final int packedLength = packedLength(bitWidth);
+      if (packedLength > 1 + BLOCK_SIZE && varintLength(src, in, BLOCK_SIZE) < packedLength) {
+        out = writeVarints(src, in, BLOCK_SIZE, dest, out);
+      } else {
+        dest[out++] = (byte) bitWidth;
+        pack(src, in, bitWidth, dest, out);
+        out += packedLength - 1;
+      }
+    }
+    if (in < end) {
+      out = writeVarints(src, in, end - in, dest, out);
+    }
+    return out - destOffset;
+  }
+
+  /**
+   * Decodes {@code length} integers from the given array, starting at the given offset, into the
+   * range {@code [destOffset..destOffset + length)} of the given destination array.
+   *
+   * @param src the array to read from
+   * @param srcOffset the offset into the source array
+   * @param dest the array to write to
+   * @param destOffset the offset into the destination array
+   * @param length the number of integers to decode
+   * @return the number of read bytes
+   * @throws IndexOutOfBoundsException if {@code srcOffset < 0} or {@code srcOffset >
+   *     src.length}, or if the destination range is out of bounds
+   * @throws IllegalArgumentException if a block is malformed or truncated
+   */
+  public static int decode(final byte[] src, final int srcOffset,
+      final int[] dest, final int destOffset, final int length) {
+    Objects.checkIndex(srcOffset, src.length + 1);
+    Objects.checkFromIndexSize(destOffset, length, dest.length);
+    final int end = destOffset + length;
+    int in = srcOffset;
+    int out = destOffset;
+
+    while (out < end) {
+      if (in >= src.length) {
+        throw new IllegalArgumentException("Found truncated block");
+      }
+      final int count = Math.min(BLOCK_SIZE, end - out);
+      final byte header = src[in++];
+      if (header == VARINT_BLOCK) {
+        in = Varints.read(src, in, src.length, dest, out, count);
+      } else if (header >= 0 && header <= Integer.SIZE && count == BLOCK_SIZE) {
+        final int payloadLength = packedLength(header) - 1;
+        if (in + payloadLength > src.length) {
+          throw new IllegalArgumentException("Found truncated block");
+        }
+        unpack(src, in, header, dest, out);
+        in += payloadLength;
+      } else {
+        throw new IllegalArgumentException("Found malformed block header " + header);
+      }
+      out += count;
+    }
+    return in - srcOffset;
+  }
+
+  /**
+   * Returns the number of bytes taken by a bit-packed block, including its header.
+   *
+   * @param bitWidth the bit width of the block
+   * @return the block length
+   */
+  private static int packedLength(final int bitWidth) {
+    // Each of the lanes is packed into bitWidth 4-byte words
+    return 1 + bitWidth * LANES * Integer.BYTES;
+  }
+
+  /**
+   * Returns the number of bits needed to represent the largest unsigned integer in the block
+   * starting at the given offset.
+   *
+   * @param src the source array
+   * @param offset the offset of the block
+   * @return the bit width of the block
+   */
+  private static int bitWidth(final int[] src, final int offset) {
+    IntVector acc = IntVector.zero(SPECIES);
+    for (int row = 0; row < ROWS; row++) {
+      acc = acc.or(IntVector.fromArray(SPECIES, src, offset + row * LANES));
+    }
+    return Integer.SIZE - Integer.numberOfLeadingZeros(acc.reduceLanes(VectorOperators.OR));
+  }
+
+  private static void pack(final int[] src, final int srcOffset, final int bitWidth,
+      final byte[] dest, int destOffset) {
+    if (bitWidth == 0) {
+      return;
+    }
+    IntVector word = IntVector.zero(SPECIES);
+    int shift = 0;
+    for (int row = 0; row < ROWS; row++) {
+      final IntVector values = IntVector.fromArray(SPECIES, src, srcOffset + row * LANES);
+      word = word.or(values.lanewise(VectorOperators.LSHL, shift));
+      shift += bitWidth;
+      if (shift >= Integer.SIZE) {
+        word.intoByteArray(dest, destOffset, ByteOrder.LITTLE_ENDIAN);
+        destOffset += LANES * Integer.BYTES;
+        shift -= Integer.SIZE;
+        // Carry the high bits that didn't fit in the previous word, if any
+        word = shift == 0
+            ? IntVector.zero(SPECIES)
+            : values.lanewise(VectorOperators.LSHR, bitWidth - shift);
+      }
+    }
+    // ROWS * bitWidth is a multiple of the word size, so the last word has already been flushed.
+  }
+
+  private static void unpack(final byte[] src, int srcOffset, final int bitWidth,
+      final int[] dest, final int destOffset) {
+    if (bitWidth == 0) {
+      for (int row = 0; row < ROWS; row++) {
+        IntVector.zero(SPECIES).intoArray(dest, destOffset + row * LANES);
+      }
+      return;
+    }
+    final int mask = bitWidth == Integer.SIZE ? -1 : (1 << bitWidth) - 1;
+    IntVector word = IntVector.fromByteArray(SPECIES, src, srcOffset, ByteOrder.LITTLE_ENDIAN);
+    int shift = 0;
+    for (int row = 0; row < ROWS; row++) {
+      IntVector values = word.lanewise(VectorOperators.LSHR, shift);
+      shift += bitWidth;
+      if (shift >= Integer.SIZE && row < ROWS - 1) {
+        srcOffset += LANES * Integer.BYTES;
+        word = IntVector.fromByteArray(SPECIES, src, srcOffset, ByteOrder.LITTLE_ENDIAN);
+        shift -= Integer.SIZE;
+        if (shift > 0) {
+          // Pull the high bits of the value from the next word
+          values = values.or(word.lanewise(VectorOperators.LSHL, bitWidth - shift));
+        }
+      }
+      values.and(mask).intoArray(dest, destOffset + row * LANES);
+    }
+  }
+
+  private static int varintLength(final int value) {
+    // Every byte stores 7 bits, and zero still takes a single byte
+    return (Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+  }
+
+  private static int varintLength(final int[] src, final int offset, final int length) {
+    int result = 1; // header
+    for (int i = offset; i < offset + length; i++) {
+      result += varintLength(src[i]);
+    }
+    return result;
+  }
+
+  private static int writeVarints(final int[] src, final int offset, final int length,
+      final byte[] dest, int destOffset) {
+    dest[destOffset++] = VARINT_BLOCK;
+    for (int i = offset; i < offset + length; i++) {
+      int value = src[i];
+      while ((value & ~0x7F) != 0) {
+        dest[destOffset++] = (byte) (value | 0x80);
+        value >>>= 7;
+      }
+      dest[destOffset++] = (byte) value;
+    }
+    return destOffset;
+  }
+}
@@ -155,6 +155,39 @@ public final class Varints {
     return read(vector, end);
   }
 
+  /**
+   * Reads {@code count} consecutive base-128 varints from the given array, starting at the given
+   * offset and without reading past {@code limit}, into the given destination array.
+   *
+   * @param src the array to read from
+   * @param offset the offset into the source array
+   * @param limit the index of the first byte that cannot be read
+   * @param dest the array to write the values to
+   * @param destOffset the offset into the destination array
+   * @param count the number of varints to read
+   * @return the offset of the first byte after the last read varint
+   * @throws IllegalArgumentException if a varint is malformed or extends past {@code limit}
+   */
+  static int read(final byte[] src, int offset, final int limit,
+      final int[] dest, final int destOffset, final int count) {
+    for (int i = 0; i < count; i++) {
+      if (offset >= limit) {
+        throw new IllegalArgumentException("Found malformed varint");
+      }
+      // Avoid the masked load unless we're close to the end of the source range
+      final ByteVector vector = offset + SPECIES.length() <= limit
+          ? ByteVector.fromArray(SPECIES, src, offset)
+          : ByteVector.fromArray(SPECIES, src, offset, SPECIES.indexInRange(offset, limit));
+      final int end = lastIndex(vector);
+      if (offset + end >= limit) {
+        throw new IllegalArgumentException("Found malformed varint");
+      }
+      dest[destOffset + i] = read(vector, end);
+      offset += end + 1;
+    }
+    return offset;
+  }
+
   /**
    * Writes the given value as a base-128 varint to the given array starting at the given offset,
    * according to {@linkplain ByteOrder#LITTLE_ENDIAN little-endian} order.
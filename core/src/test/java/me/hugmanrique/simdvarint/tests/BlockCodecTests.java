@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.simdvarint.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import me.hugmanrique.simdvarint.BlockCodec;
+import org.junit.jupiter.api.Test;
+
+public class BlockCodecTests {
+
+  static byte[] assertRoundTrip(final int[] src) {
+    final byte[] dest = new byte[BlockCodec.maxEncodedLength(src.length) + 1];
+    final int written = BlockCodec.encode(src, 0, src.length, dest, 1);
+    assertTrue(written <= BlockCodec.maxEncodedLength(src.length));
+
+    final int[] decoded = new int[src.length];
+    assertEquals(written, BlockCodec.decode(dest, 1, decoded, 0, src.length));
+    assertArrayEquals(src, decoded);
+    return Arrays.copyOfRange(dest, 1, 1 + written);
+  }
+
+  static void assertExactRoundTrip(final int[] src, final int srcOffset, final int length) {
+    final byte[] buf = new byte[BlockCodec.maxEncodedLength(length)];
+    final int written = BlockCodec.encode(src, srcOffset, length, buf, 0);
+
+    // Place the encoded blocks at the very end of the source array
+    final byte[] encoded = new byte[2 + written];
+    System.arraycopy(buf, 0, encoded, 2, written);
+    final int[] decoded = new int[3 + length];
+    assertEquals(written, BlockCodec.decode(encoded, 2, decoded, 3, length));
+    assertArrayEquals(Arrays.copyOfRange(src, srcOffset, srcOffset + length),
+        Arrays.copyOfRange(decoded, 3, 3 + length));
+  }
+
+  static int[] randomValues(final Random random, final int length, final int bitWidth) {
+    final int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      final int value = random.nextInt();
+      values[i] = bitWidth == Integer.SIZE ? value : value & ((1 << bitWidth) - 1);
+    }
+    return values;
+  }
+
+  @Test
+  void testEmpty() {
+    assertEquals(0, assertRoundTrip(new int[0]).length);
+  }
+
+  @Test
+  void testZeroBlockTakesHeaderOnly() {
+    final byte[] encoded = assertRoundTrip(new int[BlockCodec.BLOCK_SIZE]);
+
+    assertArrayEquals(new byte[] { 0x00 }, encoded);
+  }
+
+  @Test
+  void testNarrowBlockIsPacked() {
+    final int[] src = new int[BlockCodec.BLOCK_SIZE];
+    Arrays.fill(src, 5);
+    final byte[] encoded = assertRoundTrip(src);
+
+    assertEquals(3, encoded[0]);
+    assertEquals(1 + 3 * BlockCodec.BLOCK_SIZE / Byte.SIZE, encoded.length);
+  }
+
+  @Test
+  void testSkewedBlockFallsBackToVarints() {
+    final int[] src = new int[BlockCodec.BLOCK_SIZE];
+    Arrays.fill(src, 1);
+    src[0] = -1;
+    final byte[] encoded = assertRoundTrip(src);
+
+    assertEquals((byte) 0x80, encoded[0]);
+    assertEquals(1 + 5 + (BlockCodec.BLOCK_SIZE - 1), encoded.length);
+  }
+
+  @Test
+  void testEveryBitWidth() {
+    final Random random = new Random(0x5EED);
+    for (int bitWidth = 0; bitWidth <= Integer.SIZE; bitWidth++) {
+      assertRoundTrip(randomValues(random, 3 * BlockCodec.BLOCK_SIZE, bitWidth));
+    }
+  }
+
+  @Test
+  void testTrailingValues() {
+    final Random random = new Random(0x5EED);
+    assertRoundTrip(randomValues(random, 1, 12));
+    assertRoundTrip(randomValues(random, BlockCodec.BLOCK_SIZE - 1, 20));
+    assertRoundTrip(randomValues(random, BlockCodec.BLOCK_SIZE + 7, 9));
+    assertRoundTrip(randomValues(random, 5 * BlockCodec.BLOCK_SIZE + 100, Integer.SIZE));
+  }
+
+  @Test
+  void testExactlySizedInput() {
+    final Random random = new Random(0x5EED);
+    final int[] tail = randomValues(random, 2 * BlockCodec.BLOCK_SIZE + 7, 9);
+    assertExactRoundTrip(tail, 1, 1);
+    assertExactRoundTrip(tail, 5, BlockCodec.BLOCK_SIZE + 2);
+
+    final int[] skewed = new int[BlockCodec.BLOCK_SIZE + 1];
+    Arrays.fill(skewed, 1);
+    skewed[1] = -1;
+    assertExactRoundTrip(skewed, 1, BlockCodec.BLOCK_SIZE);
+  }
+
+  @Test
+  void testMaxEncodedLengthNearLimit() {
+    final int blocks = Integer.MAX_VALUE / (1 + 32 * BlockCodec.BLOCK_SIZE / Byte.SIZE);
+    final int length = blocks * BlockCodec.BLOCK_SIZE;
+
+    assertEquals(2147482625, BlockCodec.maxEncodedLength(length));
+    assertEquals(2147482631, BlockCodec.maxEncodedLength(length + 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> BlockCodec.maxEncodedLength(length + BlockCodec.BLOCK_SIZE));
+    assertThrows(IllegalArgumentException.class,
+        () -> BlockCodec.maxEncodedLength(600_000_000));
+    assertThrows(IllegalArgumentException.class,
+        () -> BlockCodec.maxEncodedLength(Integer.MAX_VALUE));
+    assertThrows(IllegalArgumentException.class, () -> BlockCodec.maxEncodedLength(-1));
+  }
+
+  @Test
+  void testTruncatedInputThrows() {
+    final int[] src = randomValues(new Random(0x5EED), BlockCodec.BLOCK_SIZE + 3, 17);
+    final byte[] encoded = assertRoundTrip(src);
+
+    for (final int length : new int[] { 0, 1, BlockCodec.BLOCK_SIZE, encoded.length - 1 }) {
+      final byte[] truncated = Arrays.copyOf(encoded, length);
+      assertThrows(IllegalArgumentException.class,
+          () -> BlockCodec.decode(truncated, 0, new int[src.length], 0, src.length));
+    }
+  }
+
+  @Test
+  void testMalformedHeaderThrows() {
+    final byte[] src = new byte[] { 0x21, 0x00 };
+
+    assertThrows(IllegalArgumentException.class,
+        () -> BlockCodec.decode(src, 0, new int[BlockCodec.BLOCK_SIZE], 0, BlockCodec.BLOCK_SIZE));
+    // Partial blocks are always stored as varints
+    assertThrows(IllegalArgumentException.class,
+        () -> BlockCodec.decode(new byte[] { 0x00 }, 0, new int[1], 0, 1));
+  }
+
+  @Test
+  void testOutOfBoundsThrows() {
+    final int[] src = new int[4];
+    final byte[] dest = new byte[BlockCodec.maxEncodedLength(src.length)];
+
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> BlockCodec.encode(src, 1, src.length, dest, 0));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> BlockCodec.decode(dest, dest.length + 1, new int[1], 0, 1));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> BlockCodec.decode(dest, 0, new int[1], 0, 2));
+  }
+}